@@ -1,14 +1,38 @@
 import crypto.*;
+import crypto.algorithms.XTSCipher;
+import crypto.encoding.TextCodec;
 import io.FileIO;
 
 import javax.net.ssl.KeyManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Main {
     public static void main(String[] args) throws Exception {
+        if (args[0].equals("--xts-encrypt") || args[0].equals("--xts-decrypt")) {
+            processSectors(args);
+            return;
+        }
+        if (args[0].equals("--rotate-key")) {
+            rotateKey(args);
+            return;
+        }
+        if (args[0].equals("--calibrate")) {
+            calibrate();
+            return;
+        }
+
         String filePath = args[0];
         String key = args[1];
 
         SymetricCypher cypher = new SymetricCypher();
+        EngineProfile profile = Calibration.load(Calibration.DEFAULT_PROFILE);
+        if (profile != null) {
+            cypher.configure(profile);
+        }
+        if (args.length > 2) {
+            cypher.setTextCodec(TextCodec.forName(args[2]));
+        }
         String content = FileIO.read(filePath);
         String result;
         String outputPath;
@@ -26,4 +50,61 @@ public class Main {
         FileIO.write(outputPath, result);
         System.out.println("Operación completada correctamente.");
     }
-}
\ No newline at end of file
+
+    /**
+     * In-place XTS processing of a disk image
+     * Usage: --xts-encrypt|--xts-decrypt <image> <dataKey> <tweakKey> [firstSector [sectorCount]]
+     * A firstSector without sectorCount processes up to the end of the image.
+     */
+    private static void processSectors(String[] args) throws Exception {
+        Path imagePath = Path.of(args[1]);
+        XTSCipher xts = new XTSCipher(args[2], args[3]);
+        long firstSector = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        long sectorCount = args.length > 5 ? Long.parseLong(args[5]) : Long.MAX_VALUE;
+
+        if (args[0].equals("--xts-encrypt")) {
+            System.out.println("Encriptando sectores de la imagen...");
+            xts.encryptSectors(imagePath, firstSector, sectorCount);
+        } else {
+            System.out.println("Decriptando sectores de la imagen...");
+            xts.decryptSectors(imagePath, firstSector, sectorCount);
+        }
+
+        System.out.println("Operación completada correctamente.");
+    }
+
+    /**
+     * Re-encrypt a .enc file, or every .enc file below a directory, under a new key
+     * Usage: --rotate-key <file|directory> <oldKey> <newKey> [codec] [concurrency]
+     */
+    private static void rotateKey(String[] args) throws Exception {
+        Path target = Path.of(args[1]);
+        TextCodec codec = args.length > 4 ? TextCodec.forName(args[4]) : TextCodec.BASE64;
+        int concurrency = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        KeyRotation rotation = new KeyRotation(args[2], args[3], codec, concurrency);
+
+        System.out.println("Rotando la clave...");
+        if (Files.isDirectory(target)) {
+            int rotated = rotation.rotateTree(target);
+            System.out.println("Ficheros procesados: " + rotated);
+        } else {
+            rotation.rotateFile(target);
+        }
+
+        System.out.println("Operación completada correctamente.");
+    }
+
+    /**
+     * Benchmark the engines on this host and cache the fastest in the profile file
+     */
+    private static void calibrate() throws Exception {
+        System.out.println("Calibrando el motor de cifrado...");
+        Calibration calibration = new Calibration();
+        EngineProfile best = calibration.run();
+        for (EngineProfile measured : calibration.getMeasurements()) {
+            System.out.println("  " + measured);
+        }
+        Calibration.save(Calibration.DEFAULT_PROFILE, best);
+        System.out.println("Motor seleccionado: " + best);
+    }
+}
@@ -1,4 +1,24 @@
+import crypto.Calibration;
+import crypto.EngineProfile;
+import crypto.KeyRotation;
 import crypto.SymetricCypher;
+import crypto.algorithms.XTSCipher;
+import crypto.encoding.TextCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Comprehensive test for the refactored symmetric cipher
@@ -15,6 +35,10 @@ public class Test {
         // Test cases
         testXORAlgorithm(cipher);
         testAESAlgorithm(cipher);
+        testXTSAlgorithm();
+        testTextCodecs(cipher);
+        testKeyRotation(cipher);
+        testCalibration();
         testEdgeCases(cipher);
         
         System.out.println("=== All Tests Completed ===");
@@ -74,6 +98,346 @@ public class Test {
         System.out.println();
     }
     
+    /**
+     * Test XTS mode on sectors, buffers and memory-mapped files
+     */
+    private static void testXTSAlgorithm() {
+        System.out.println("--- XTS Algorithm Tests ---");
+
+        try {
+            // Test 1: IEEE 1619 test vector 2
+            XTSCipher vectorCipher = new XTSCipher("\u0011".repeat(16), "\"".repeat(16), 32);
+            byte[] sector = new byte[32];
+            Arrays.fill(sector, (byte) 0x44);
+            vectorCipher.encryptSector(sector, 0, 32, 0x3333333333L);
+            String expected = "c454185e6a16936e39334038acef838bfb186fff7480adc4289382ecd6d394f0";
+            printResult("Test 1 - IEEE 1619 vector", expected.equals(toHex(sector)));
+
+            XTSCipher xts = new XTSCipher("datakey123456789", "tweakkey12345678");
+            Random random = new Random(42);
+
+            // Test 2: Sector round trip
+            byte[] original = new byte[XTSCipher.DEFAULT_SECTOR_SIZE * 8];
+            random.nextBytes(original);
+            byte[] data = original.clone();
+            for (int s = 0; s < 8; s++) xts.encryptSector(data, s * 512, 512, s);
+            boolean changed = !Arrays.equals(original, data);
+            for (int s = 0; s < 8; s++) xts.decryptSector(data, s * 512, 512, s);
+            printResult("Test 2 - Sector round trip", changed && Arrays.equals(original, data));
+
+            // Test 3: Ciphertext stealing on a partial sector
+            byte[] partial = Arrays.copyOf(original, 45);
+            xts.encryptSector(partial, 0, 45, 7);
+            xts.decryptSector(partial, 0, 45, 7);
+            printResult("Test 3 - Partial sector", Arrays.equals(Arrays.copyOf(original, 45), partial));
+
+            // Test 4: Random sector reads and writes keep the image encrypted
+            Path image = Files.createTempFile("xts", ".img");
+            try {
+                byte[] imageBytes = Arrays.copyOf(original, original.length + 100);
+                Files.write(image, imageBytes);
+                xts.encryptSectors(image, 0, Long.MAX_VALUE);
+                byte[] encrypted = Files.readAllBytes(image);
+
+                boolean readOk = Arrays.equals(Arrays.copyOfRange(imageBytes, 1536, 2560), xts.readSectors(image, 3, 2))
+                        && Arrays.equals(Arrays.copyOfRange(imageBytes, 4096, 4196), xts.readSectors(image, 8, 5))
+                        && Arrays.equals(encrypted, Files.readAllBytes(image));
+
+                byte[] update = new byte[1024];
+                random.nextBytes(update);
+                xts.writeSectors(image, 3, update);
+                byte[] written = Files.readAllBytes(image);
+                boolean writeOk = Arrays.equals(Arrays.copyOf(encrypted, 1536), Arrays.copyOf(written, 1536))
+                        && Arrays.equals(Arrays.copyOfRange(encrypted, 2560, encrypted.length), Arrays.copyOfRange(written, 2560, written.length))
+                        && !Arrays.equals(update, Arrays.copyOfRange(written, 1536, 2560))
+                        && !Arrays.equals(Arrays.copyOfRange(encrypted, 1536, 2560), Arrays.copyOfRange(written, 1536, 2560))
+                        && Arrays.equals(update, xts.readSectors(image, 3, 2));
+                printResult("Test 4 - Sector read and write", readOk && writeOk);
+            } finally {
+                Files.deleteIfExists(image);
+            }
+
+            // Test 5: A final sector shorter than one block is rejected before the file is changed
+            Path shortTail = Files.createTempFile("xts", ".img");
+            try {
+                byte[] imageBytes = Arrays.copyOf(original, 2056);
+                Files.write(shortTail, imageBytes);
+                boolean rejected = false;
+                try {
+                    xts.encryptSectors(shortTail, 0, Long.MAX_VALUE);
+                } catch (IllegalArgumentException e) {
+                    rejected = true;
+                }
+                printResult("Test 5 - Short final sector rejected", rejected && Arrays.equals(imageBytes, Files.readAllBytes(shortTail)));
+            } finally {
+                Files.deleteIfExists(shortTail);
+            }
+        } catch (Exception e) {
+            System.out.println("Error in XTS tests: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Test ciphertext text codecs and legacy format compatibility
+     */
+    private static void testTextCodecs(SymetricCypher cipher) {
+        System.out.println("--- Text Codec Tests ---");
+
+        try {
+            // Test 1: RFC 4648 vectors
+            byte[] foobar = "foobar".getBytes();
+            boolean vectors = TextCodec.BASE64.encode(Arrays.copyOf(foobar, 1)).equals("Zg==")
+                    && TextCodec.BASE64.encode(Arrays.copyOf(foobar, 2)).equals("Zm8=")
+                    && TextCodec.BASE64.encode(foobar).equals("Zm9vYmFy")
+                    && TextCodec.HEX.encode(foobar).equals("666f6f626172")
+                    && TextCodec.DECIMAL.encode(Arrays.copyOf(foobar, 3)).equals("102 111 111");
+            printResult("Test 1 - Known encodings", vectors);
+
+            // Test 2: Bulk and streaming round trips with uneven chunks
+            Random random = new Random(7);
+            boolean roundTrips = true;
+            for (TextCodec codec : new TextCodec[]{TextCodec.BASE64, TextCodec.HEX, TextCodec.DECIMAL}) {
+                for (int length = 0; length < 70; length++) {
+                    byte[] data = new byte[length];
+                    random.nextBytes(data);
+                    String text = codec.encode(data);
+                    roundTrips &= Arrays.equals(data, codec.decode(text));
+
+                    ByteArrayOutputStream textOut = new ByteArrayOutputStream();
+                    try (OutputStream encoder = codec.encoder(textOut)) {
+                        for (int off = 0; off < length; off += 5) {
+                            encoder.write(data, off, Math.min(5, length - off));
+                        }
+                    }
+                    roundTrips &= text.equals(textOut.toString("ISO-8859-1"));
+                    try (InputStream decoder = codec.decoder(new ByteArrayInputStream(textOut.toByteArray()))) {
+                        roundTrips &= Arrays.equals(data, decoder.readAllBytes());
+                    }
+                }
+            }
+            printResult("Test 2 - Codec round trips", roundTrips);
+
+            // Test 3: Invalid input is rejected
+            int rejected = 0;
+            String[] invalid = {"Zm9v!", "AAAA====", "AAAA=", "A===", "Zm9=v", "Zg==="};
+            for (String text : invalid) {
+                try {
+                    TextCodec.BASE64.decode(text);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                }
+            }
+            printResult("Test 3 - Invalid input rejected", rejected == invalid.length);
+
+            // Test 4: Output codecs through the facade, plus legacy decimal ciphertext
+            String text = "Héllo codec test";
+            String key = "codeckey";
+            boolean facade = true;
+            for (TextCodec codec : new TextCodec[]{TextCodec.HEX, TextCodec.BASE64}) {
+                cipher.setTextCodec(codec);
+                facade &= text.equals(cipher.decrypt(cipher.encrypt(text, key), key));
+                facade &= text.equals(cipher.decryptWithXOR(cipher.encryptWithXOR(text, key), key));
+            }
+            String legacy = cipher.processWithAES(text, key);
+            String legacyXor = cipher.processWithXOR(text, key);
+            printResult("Test 4 - Facade codecs and legacy format", facade && text.equals(cipher.decrypt(legacy, key))
+                    && text.equals(cipher.decryptWithXOR(legacyXor, key)));
+
+            // Test 5: Hex ciphertext is detected on decrypt without selecting the codec
+            SymetricCypher hexWriter = new SymetricCypher();
+            hexWriter.setTextCodec(TextCodec.HEX);
+            boolean detected = true;
+            for (String sample : new String[]{"", "short", "exactly 16 bytes", text}) {
+                detected &= sample.equals(new SymetricCypher().decrypt(hexWriter.encrypt(sample, key), key));
+            }
+            printResult("Test 5 - Codec detected on decrypt", detected);
+
+            // Test 6: Legacy decimal cannot be selected for new ciphertext
+            boolean outputRejected = false;
+            try {
+                cipher.setTextCodec(TextCodec.DECIMAL);
+            } catch (IllegalArgumentException e) {
+                outputRejected = true;
+            }
+            printResult("Test 6 - Decimal output rejected", outputRejected && cipher.getTextCodec() == TextCodec.BASE64);
+        } catch (Exception e) {
+            System.out.println("Error in codec tests: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Test streaming key rotation of files and directory trees
+     */
+    private static void testKeyRotation(SymetricCypher cipher) {
+        System.out.println("--- Key Rotation Tests ---");
+
+        Path root = null;
+        try {
+            String oldKey = "oldkey1234567890";
+            String newKey = "newkey0987654321";
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 120000; i++) large.append("line ").append(i).append('\n');
+            String[] texts = {"Hello rotation", "", large.toString()};
+
+            // Test 1: Directory tree with nested files, including a legacy decimal file
+            root = Files.createTempDirectory("rotation");
+            Files.createDirectories(root.resolve("nested/deeper"));
+            Path[] files = {root.resolve("a.txt.enc"), root.resolve("nested/b.txt.enc"), root.resolve("nested/deeper/c.txt.enc")};
+            for (int i = 0; i < files.length; i++) {
+                Files.writeString(files[i], cipher.encrypt(texts[i], oldKey));
+            }
+            Path legacy = root.resolve("legacy.txt.enc");
+            Files.writeString(legacy, cipher.processWithAES("Legacy file", oldKey));
+            Path plain = root.resolve("notes.txt");
+            Files.writeString(plain, "not encrypted");
+
+            int rotated = new KeyRotation(oldKey, newKey, TextCodec.BASE64, 2).rotateTree(root);
+            boolean treeOk = rotated == 4 && Files.readString(plain).equals("not encrypted")
+                    && Files.exists(root.resolve(KeyRotation.CHECKPOINT_FILE))
+                    && cipher.decrypt(Files.readString(legacy), newKey).equals("Legacy file");
+            for (int i = 0; i < files.length; i++) {
+                treeOk &= cipher.decrypt(Files.readString(files[i]), newKey).equals(texts[i]);
+            }
+            printResult("Test 1 - Tree rotation", treeOk);
+
+            // Test 2: Rerunning a completed rotation changes nothing
+            String[] rotatedContents = new String[files.length];
+            for (int i = 0; i < files.length; i++) rotatedContents[i] = Files.readString(files[i]);
+            rotated = new KeyRotation(oldKey, newKey, TextCodec.BASE64, 2).rotateTree(root);
+            boolean noOp = rotated == 0;
+            for (int i = 0; i < files.length; i++) noOp &= rotatedContents[i].equals(Files.readString(files[i]));
+            printResult("Test 2 - Rerun is a no-op", noOp);
+
+            // Test 3: A new rotation resumes after a failure and finishes an interrupted move
+            String newerKey = "newerkey";
+            KeyRotation newer = new KeyRotation(newKey, newerKey, TextCodec.BASE64, 2);
+            Files.writeString(files[0], cipher.encrypt(texts[0], "otherkey"));
+            boolean failed = false;
+            try {
+                newer.rotateTree(root);
+            } catch (IOException e) {
+                failed = true;
+            }
+            Files.writeString(files[0], cipher.encrypt(texts[0], newKey));
+            Path pendingTemp = files[1].resolveSibling("b.txt.enc.rotating");
+            Files.writeString(pendingTemp, cipher.encrypt("moved on resume", newerKey));
+            rotated = newer.rotateTree(root);
+            boolean resumeOk = failed && rotated == 1 && !Files.exists(pendingTemp)
+                    && cipher.decrypt(Files.readString(files[0]), newerKey).equals(texts[0])
+                    && cipher.decrypt(Files.readString(files[1]), newerKey).equals("moved on resume")
+                    && cipher.decrypt(Files.readString(files[2]), newerKey).equals(texts[2]);
+            printResult("Test 3 - Resume from checkpoint", resumeOk);
+
+            // Test 4: Wrong old keys leave the file untouched
+            String before = Files.readString(files[0]);
+            int rejected = 0;
+            for (int i = 0; i < 200; i++) {
+                try {
+                    new KeyRotation("wrongkey" + i, newKey).rotateFile(files[0]);
+                } catch (IOException e) {
+                    rejected++;
+                }
+            }
+            printResult("Test 4 - Wrong old key rejected", rejected == 200 && before.equals(Files.readString(files[0])));
+
+            // Test 5: Empty ciphertext is rejected
+            Path empty = root.resolve("empty.txt.enc");
+            Files.writeString(empty, " \n");
+            boolean emptyRejected = false;
+            try {
+                new KeyRotation(newerKey, newKey).rotateFile(empty);
+            } catch (IOException e) {
+                emptyRejected = true;
+            }
+            printResult("Test 5 - Empty ciphertext rejected", emptyRejected);
+
+            // Test 6: A file put back under the old key at a recorded path is rotated again
+            Files.delete(empty);
+            Files.writeString(files[2], cipher.encrypt("restored from backup", newKey));
+            rotated = newer.rotateTree(root);
+            printResult("Test 6 - Reappeared file rotated", rotated == 1
+                    && cipher.decrypt(Files.readString(files[2]), newerKey).equals("restored from backup"));
+
+            // Test 7: Rotation keeps the POSIX permissions of the file
+            boolean permissionsKept = true;
+            if (Files.getFileStore(files[0]).supportsFileAttributeView("posix")) {
+                Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rw-------");
+                Files.setPosixFilePermissions(files[0], ownerOnly);
+                new KeyRotation(newerKey, newKey).rotateFile(files[0]);
+                permissionsKept = ownerOnly.equals(Files.getPosixFilePermissions(files[0]))
+                        && cipher.decrypt(Files.readString(files[0]), newKey).equals(texts[0]);
+            }
+            printResult("Test 7 - Permissions preserved", permissionsKept);
+        } catch (Exception e) {
+            System.out.println("Error in key rotation tests: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            deleteTree(root);
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Test engine calibration, profile caching and parallel bulk encryption
+     */
+    private static void testCalibration() {
+        System.out.println("--- Calibration Tests ---");
+
+        Path profileFile = null;
+        try {
+            // Test 1: Calibration measures every candidate and picks the fastest
+            Calibration calibration = new Calibration(64 * 1024);
+            EngineProfile best = calibration.run();
+            boolean fastest = !calibration.getMeasurements().isEmpty();
+            for (EngineProfile measured : calibration.getMeasurements()) {
+                fastest &= measured.getThroughput() <= best.getThroughput();
+            }
+            printResult("Test 1 - Fastest engine selected", fastest && best.getThroughput() > 0);
+
+            // Test 2: Profile is cached and reloaded
+            profileFile = Files.createTempFile("engine", ".profile");
+            Files.delete(profileFile);
+            EngineProfile created = Calibration.loadOrRun(profileFile);
+            EngineProfile reloaded = Calibration.loadOrRun(profileFile);
+            printResult("Test 2 - Cached profile", Files.exists(profileFile) && created.toString().equals(reloaded.toString()));
+
+            // Test 3: Parallel engine produces the same ciphertext as the sequential one
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 20000; i++) text.append("block ").append(i).append(' ');
+            SymetricCypher sequential = new SymetricCypher();
+            SymetricCypher parallel = new SymetricCypher();
+            parallel.configure(new EngineProfile(EngineProfile.Engine.PARALLEL, 3, 4096, 0));
+            String encrypted = parallel.encrypt(text.toString(), "enginekey");
+            boolean same = encrypted.equals(sequential.encrypt(text.toString(), "enginekey"))
+                    && text.toString().equals(parallel.decrypt(encrypted, "enginekey"));
+            printResult("Test 3 - Parallel engine matches sequential", same);
+
+            // Test 4: A cached profile with invalid values is ignored instead of failing startup
+            Calibration.save(profileFile, new EngineProfile(EngineProfile.Engine.PARALLEL, 2, 4096, 1));
+            String valid = Files.readString(profileFile);
+            Files.writeString(profileFile, valid.replace("threads=2", "threads=0"));
+            boolean badThreads = Calibration.load(profileFile) == null;
+            Files.writeString(profileFile, valid.replace("chunkSize=4096", "chunkSize=100"));
+            boolean badChunk = Calibration.load(profileFile) == null;
+            Files.writeString(profileFile, valid);
+            printResult("Test 4 - Invalid cached profile ignored", badThreads && badChunk && Calibration.load(profileFile) != null);
+        } catch (Exception e) {
+            System.out.println("Error in calibration tests: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (profileFile != null) profileFile.toFile().delete();
+        }
+
+        System.out.println();
+    }
+
     /**
      * Test edge cases and error conditions
      */
@@ -150,4 +514,23 @@ public class Test {
             System.out.println(testName + ": ✗ FAIL (Exception: " + e.getMessage() + ")");
         }
     }
-}
\ No newline at end of file
+
+    private static void printResult(String testName, boolean success) {
+        System.out.println(testName + ": " + (success ? "✓ PASS" : "✗ FAIL"));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b & 0xFF));
+        return sb.toString();
+    }
+
+    private static void deleteTree(Path root) {
+        if (root == null) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (Exception e) {
+            System.out.println("Could not clean up " + root + ": " + e.getMessage());
+        }
+    }
+}
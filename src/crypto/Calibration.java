@@ -0,0 +1,180 @@
+package crypto;
+
+import crypto.algorithms.AESCipher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Startup self-calibration
+ * Runs short microbenchmarks of the bulk AES engines over a range of thread
+ * counts and chunk sizes and picks the fastest setting for this host. The
+ * result can be cached in a profile file so later runs skip the benchmarks.
+ */
+public class Calibration {
+
+    public static final Path DEFAULT_PROFILE = Path.of(".symetric-cypher.profile");
+
+    private static final int[] CHUNK_SIZES = {16 * 1024, 64 * 1024, 256 * 1024};
+    private static final int RUNS = 3;
+    private static final String BENCHMARK_KEY = "calibration-key1";
+
+    private final int sampleSize;
+    private final List<EngineProfile> measurements = new ArrayList<>();
+
+    /**
+     * Constructor - calibration on a 1 MiB sample
+     */
+    public Calibration() {
+        this(1024 * 1024);
+    }
+
+    /**
+     * Constructor
+     * @param sampleSize Bytes encrypted per benchmark run
+     */
+    public Calibration(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Benchmark every candidate setting
+     * @return The fastest profile
+     */
+    public EngineProfile run() {
+        measurements.clear();
+        byte[] sample = new byte[sampleSize];
+        new Random(0).nextBytes(sample);
+
+        List<EngineProfile> candidates = new ArrayList<>();
+        candidates.add(new EngineProfile(EngineProfile.Engine.SEQUENTIAL, 1, CHUNK_SIZES[0], 0));
+        for (int threads : threadCandidates()) {
+            for (int chunkSize : CHUNK_SIZES) {
+                candidates.add(new EngineProfile(EngineProfile.Engine.PARALLEL, threads, chunkSize, 0));
+            }
+        }
+
+        List<AESCipher> engines = new ArrayList<>();
+        for (EngineProfile candidate : candidates) {
+            AESCipher aes = new AESCipher();
+            aes.setParallelism(candidate.getThreads(), candidate.getChunkSize());
+            engines.add(aes);
+        }
+
+        // Shared warm-up of every engine before anything is timed
+        for (AESCipher aes : engines) {
+            aes.encrypt(sample, BENCHMARK_KEY);
+        }
+
+        // Timed rounds visit the candidates in a different order each time; keep each one's best run
+        long[] bestTimes = new long[candidates.size()];
+        Arrays.fill(bestTimes, Long.MAX_VALUE);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) order.add(i);
+        Random shuffle = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            Collections.shuffle(order, shuffle);
+            for (int i : order) {
+                bestTimes[i] = Math.min(bestTimes[i], time(engines.get(i), sample));
+            }
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            EngineProfile candidate = candidates.get(i);
+            double throughput = sample.length / (bestTimes[i] / 1e9) / (1024 * 1024);
+            measurements.add(new EngineProfile(candidate.getEngine(), candidate.getThreads(), candidate.getChunkSize(), throughput));
+        }
+
+        EngineProfile best = measurements.get(0);
+        for (EngineProfile profile : measurements) {
+            if (profile.getThroughput() > best.getThroughput()) best = profile;
+        }
+        return best;
+    }
+
+    /**
+     * Results of the last run, one entry per candidate setting
+     */
+    public List<EngineProfile> getMeasurements() {
+        return Collections.unmodifiableList(measurements);
+    }
+
+    /**
+     * Load the cached profile, or calibrate and cache the result
+     * A cached profile is only used if it was measured on a matching host.
+     * @param profileFile The profile file
+     * @return Profile for this host
+     */
+    public static EngineProfile loadOrRun(Path profileFile) throws IOException {
+        EngineProfile cached = load(profileFile);
+        if (cached != null) return cached;
+
+        EngineProfile best = new Calibration().run();
+        save(profileFile, best);
+        return best;
+    }
+
+    /**
+     * Load a cached profile
+     * @return The profile, or null if the file is missing, invalid or from a different host
+     */
+    public static EngineProfile load(Path profileFile) throws IOException {
+        if (!Files.exists(profileFile)) return null;
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(profileFile)) {
+            properties.load(in);
+        }
+        if (!hostSignature().equals(properties.getProperty("host"))) return null;
+        try {
+            return EngineProfile.load(properties);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Save a profile together with the signature of this host
+     */
+    public static void save(Path profileFile, EngineProfile profile) throws IOException {
+        Properties properties = new Properties();
+        profile.store(properties);
+        properties.setProperty("host", hostSignature());
+        try (OutputStream out = Files.newOutputStream(profileFile)) {
+            properties.store(out, "SymetricCypher engine calibration");
+        }
+    }
+
+    private static long time(AESCipher aes, byte[] sample) {
+        long start = System.nanoTime();
+        aes.encrypt(sample, BENCHMARK_KEY);
+        return Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * Thread counts to try: powers of two below the core count, and the core count itself
+     */
+    private static List<Integer> threadCandidates() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> candidates = new ArrayList<>();
+        for (int threads = 2; threads < cores; threads *= 2) {
+            candidates.add(threads);
+        }
+        if (cores > 1) candidates.add(cores);
+        return candidates;
+    }
+
+    private static String hostSignature() {
+        return Runtime.getRuntime().availableProcessors() + "/" + System.getProperty("os.arch")
+                + "/" + System.getProperty("java.version");
+    }
+}
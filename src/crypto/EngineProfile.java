@@ -0,0 +1,96 @@
+package crypto;
+
+import java.util.Properties;
+
+/**
+ * Execution settings for bulk AES encryption
+ * Chosen by Calibration for the current host and applied to SymetricCypher.
+ */
+public class EngineProfile {
+
+    /**
+     * Available bulk encryption engines
+     */
+    public enum Engine {
+        SEQUENTIAL,
+        PARALLEL
+    }
+
+    public static final EngineProfile DEFAULT = new EngineProfile(Engine.SEQUENTIAL, 1, 64 * 1024, 0);
+
+    private final Engine engine;
+    private final int threads;
+    private final int chunkSize;
+    private final double throughput;
+
+    /**
+     * Constructor
+     * @param engine The bulk encryption engine
+     * @param threads Worker threads used by the parallel engine
+     * @param chunkSize Bytes per parallel task
+     * @param throughput Measured throughput in MB/s, 0 if not measured
+     * @throws IllegalArgumentException if threads is below 1 or chunkSize is not a positive multiple of 16
+     */
+    public EngineProfile(Engine engine, int threads, int chunkSize, double throughput) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine is required");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        if (chunkSize < 16 || chunkSize % 16 != 0) {
+            throw new IllegalArgumentException("Chunk size must be a positive multiple of 16: " + chunkSize);
+        }
+        this.engine = engine;
+        this.threads = engine == Engine.SEQUENTIAL ? 1 : threads;
+        this.chunkSize = chunkSize;
+        this.throughput = throughput;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Store the profile in properties
+     */
+    public void store(Properties properties) {
+        properties.setProperty("engine", engine.name());
+        properties.setProperty("threads", Integer.toString(threads));
+        properties.setProperty("chunkSize", Integer.toString(chunkSize));
+        properties.setProperty("throughput", Double.toString(throughput));
+    }
+
+    /**
+     * Read a profile from properties written by {@link #store(Properties)}
+     * @throws IllegalArgumentException if a value is missing or invalid
+     */
+    public static EngineProfile load(Properties properties) {
+        try {
+            return new EngineProfile(
+                    Engine.valueOf(properties.getProperty("engine")),
+                    Integer.parseInt(properties.getProperty("threads")),
+                    Integer.parseInt(properties.getProperty("chunkSize")),
+                    Double.parseDouble(properties.getProperty("throughput")));
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid engine profile", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (threads=%d, chunkSize=%d, %.1f MB/s)", engine, threads, chunkSize, throughput);
+    }
+}
@@ -0,0 +1,520 @@
+package crypto;
+
+import crypto.algorithms.AESCipher;
+import crypto.encoding.TextCodec;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Key rotation for AES ciphertext
+ * Re-encrypts ciphertext produced by SymetricCypher under a new key in a
+ * single streaming pass. Each chunk is decrypted and re-encrypted in memory
+ * with its blocks processed in parallel, so plaintext never reaches the disk.
+ * Directory trees are processed with bounded concurrency and a checkpoint
+ * file, so an interrupted rotation can be resumed.
+ *
+ * Before a file is replaced, the old key is verified on the last two
+ * decrypted blocks: the PKCS7 padding must be valid and the data before it
+ * must be valid UTF-8, as written by SymetricCypher.encrypt. A wrong key
+ * passes this check with a probability below about one in a million for
+ * single-block files and far lower for longer ones.
+ */
+public class KeyRotation {
+
+    public static final String CHECKPOINT_FILE = ".rotation-checkpoint";
+
+    private static final String ENCRYPTED_SUFFIX = ".enc";
+    private static final String TEMP_SUFFIX = ".rotating";
+
+    // Ciphertext bytes processed per chunk, a multiple of the block size
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BLOCK_SIZE = 16;
+
+    // Text prefix inspected to detect the input codec
+    private static final int SNIFF_SIZE = 4096;
+
+    private final AESCipher aes;
+    private final int[][] oldRoundKeys;
+    private final int[][] newRoundKeys;
+    private final TextCodec outputCodec;
+    private final int concurrency;
+
+    // Identifies the key pair in checkpoint files
+    private final String keyFingerprint;
+
+    /**
+     * Constructor - rotation to Base64 with one file per available core
+     * @param oldKey The key the ciphertext is currently encrypted with
+     * @param newKey The key to re-encrypt with
+     */
+    public KeyRotation(String oldKey, String newKey) {
+        this(oldKey, newKey, TextCodec.BASE64, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor - rotation with explicit output codec and concurrency
+     * The codec of the existing ciphertext is detected per file.
+     * @param oldKey The key the ciphertext is currently encrypted with
+     * @param newKey The key to re-encrypt with
+     * @param outputCodec Text codec for the re-encrypted ciphertext
+     * @param concurrency Maximum number of files rotated at the same time
+     */
+    public KeyRotation(String oldKey, String newKey, TextCodec outputCodec, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1: " + concurrency);
+        }
+        if (outputCodec.isLegacy()) {
+            throw new IllegalArgumentException("The " + outputCodec.name() + " encoding can only be read, not written");
+        }
+        byte[] oldKeyBytes = AESCipher.normalizeKey(oldKey.getBytes(StandardCharsets.UTF_8));
+        byte[] newKeyBytes = AESCipher.normalizeKey(newKey.getBytes(StandardCharsets.UTF_8));
+        this.aes = new AESCipher();
+        this.oldRoundKeys = aes.expandKey(oldKeyBytes);
+        this.newRoundKeys = aes.expandKey(newKeyBytes);
+        this.keyFingerprint = fingerprint(oldKeyBytes, newKeyBytes);
+        this.outputCodec = outputCodec;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Rotate a ciphertext stream
+     * Reads old-key ciphertext text from in and writes new-key ciphertext text to out.
+     * Neither stream is closed. The old key is only verified on the last chunk, so on
+     * failure out may already hold part of the output and must be discarded; the file
+     * entry points write to a temporary file for this reason.
+     * @throws IOException if the input is malformed or was not encrypted with the old key
+     */
+    void rotate(InputStream in, OutputStream out) throws IOException {
+        BufferedInputStream text = new BufferedInputStream(in, SNIFF_SIZE);
+        InputStream cipherIn = codecFor(text).decoder(text);
+        OutputStream cipherOut = outputCodec.encoder(new NonClosingOutputStream(out));
+
+        byte[] current = cipherIn.readNBytes(CHUNK_SIZE);
+        if (current.length == 0) {
+            throw new IOException("Ciphertext is empty");
+        }
+        byte[] next = new byte[CHUNK_SIZE];
+        byte[] previousBlock = null;
+        while (current.length > 0) {
+            int nextLength = current.length == CHUNK_SIZE ? cipherIn.readNBytes(next, 0, CHUNK_SIZE) : 0;
+            boolean last = nextLength == 0;
+
+            if (current.length % BLOCK_SIZE != 0) {
+                throw new IOException("Ciphertext is not a whole number of AES blocks");
+            }
+            if (last) {
+                checkOldKey(current, previousBlock);
+            } else {
+                previousBlock = Arrays.copyOfRange(current, current.length - BLOCK_SIZE, current.length);
+            }
+            rotateChunk(current);
+            cipherOut.write(current);
+
+            if (last) break;
+            if (nextLength == CHUNK_SIZE) {
+                byte[] swap = current;
+                current = next;
+                next = swap;
+            } else {
+                current = Arrays.copyOf(next, nextLength);
+            }
+        }
+        cipherOut.close();
+    }
+
+    /**
+     * Rotate a single file in place
+     * The new ciphertext is written next to the file and then moved over it,
+     * keeping the POSIX permissions and, where allowed, the owner of the original.
+     */
+    public void rotateFile(Path file) throws IOException {
+        Path temp = tempFor(file);
+        try {
+            writeRotated(file, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Rotate every .enc file below a directory
+     * Completed files are recorded in a checkpoint file in the directory, tagged
+     * with a fingerprint of the old and new keys. A rerun with the same keys skips
+     * them once they are confirmed to decrypt with the new key, so it resumes an
+     * interrupted rotation and is a no-op after a completed one, while a file put
+     * back under the old key at a recorded path is rotated again. A rotation with
+     * different keys starts a new checkpoint.
+     * @param root The directory to process
+     * @return Number of files rotated by this call
+     * @throws IOException if any file failed; files that succeeded stay recorded
+     */
+    public int rotateTree(Path root) throws IOException {
+        Path checkpointPath = root.resolve(CHECKPOINT_FILE);
+        Checkpoint previous = Checkpoint.load(checkpointPath);
+        recoverInterrupted(root, previous);
+        Checkpoint checkpoint = previous.isFor(keyFingerprint) ? previous : Checkpoint.start(checkpointPath, keyFingerprint);
+
+        List<Path> pending;
+        try (Stream<Path> files = Files.walk(root)) {
+            pending = files.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(ENCRYPTED_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, Math.max(1, pending.size())));
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Path file : pending) {
+                results.add(executor.submit(() -> {
+                    String name = relative(root, file);
+                    boolean recorded = checkpoint.contains(name);
+                    if (recorded && isRotated(file)) return false;
+
+                    Path temp = tempFor(file);
+                    try {
+                        writeRotated(file, temp);
+                        // Record before moving so a crash in between is finished on resume, not redone
+                        if (!recorded) checkpoint.record(name);
+                    } catch (IOException | RuntimeException e) {
+                        Files.deleteIfExists(temp);
+                        throw e;
+                    }
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return true;
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        IOException failure = null;
+        int rotated = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (results.get(i).get()) rotated++;
+            } catch (ExecutionException | InterruptedException e) {
+                // A temp left after a failed move is complete and recorded, so the next run finishes it
+                IOException error = new IOException("Key rotation failed for " + pending.get(i) + ": "
+                        + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()), e.getCause());
+                if (failure == null) failure = error;
+                else failure.addSuppressed(error);
+                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) throw failure;
+        return rotated;
+    }
+
+    /**
+     * Finish or discard temporary files left by an interrupted run
+     * A temp is only moved into place if its file is recorded and the temp itself
+     * decrypts with the new key, since a recorded path may have been rotated again.
+     */
+    private void recoverInterrupted(Path root, Checkpoint checkpoint) throws IOException {
+        List<Path> temps;
+        try (Stream<Path> files = Files.walk(root)) {
+            temps = files.filter(path -> path.getFileName().toString().endsWith(ENCRYPTED_SUFFIX + TEMP_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        for (Path temp : temps) {
+            String name = temp.getFileName().toString();
+            Path file = temp.resolveSibling(name.substring(0, name.length() - TEMP_SUFFIX.length()));
+            if (checkpoint.contains(relative(root, file)) && isRotated(temp)) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(temp);
+            }
+        }
+    }
+
+    /**
+     * Rotate a file into the temporary path and force it to disk
+     * The temp is created with the POSIX permissions of the original rather than the umask.
+     */
+    private void writeRotated(Path file, Path temp) throws IOException {
+        PosixFileAttributes original = posixAttributes(file);
+        FileAttribute<?>[] attributes = original == null ? new FileAttribute<?>[0]
+                : new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(original.permissions())};
+        try (InputStream in = Files.newInputStream(file);
+             FileChannel channel = FileChannel.open(temp, EnumSet.of(StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), attributes)) {
+            if (original != null) copyPosixAttributes(original, temp);
+            rotate(in, Channels.newOutputStream(channel));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * POSIX attributes of a file, or null if the file system does not support them
+     */
+    private static PosixFileAttributes posixAttributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, PosixFileAttributes.class);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Apply the original's permissions exactly, then its group and owner where allowed
+     */
+    private static void copyPosixAttributes(PosixFileAttributes original, Path temp) throws IOException {
+        // The creation attribute is masked by the umask and ignored for an existing temp
+        Files.setPosixFilePermissions(temp, original.permissions());
+        PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        try {
+            view.setGroup(original.group());
+        } catch (IOException e) {
+            // Not a member of the group: the temp keeps the creator's group
+        }
+        try {
+            view.setOwner(original.owner());
+        } catch (IOException e) {
+            // Changing the owner needs privileges: the temp keeps the creator as owner
+        }
+    }
+
+    /**
+     * Check whether a file already holds ciphertext under the new key
+     * The whole file is decoded, keeping only the last two blocks for the check.
+     * Malformed files count as not rotated, so rotating them reports the error.
+     */
+    private boolean isRotated(Path file) throws IOException {
+        try (BufferedInputStream text = new BufferedInputStream(Files.newInputStream(file), SNIFF_SIZE)) {
+            InputStream cipherIn = codecFor(text).decoder(text);
+            byte[] buffer = new byte[CHUNK_SIZE];
+            byte[] tail = new byte[2 * BLOCK_SIZE];
+            long total = 0;
+            int read;
+            while ((read = cipherIn.read(buffer)) > 0) {
+                int keep = Math.min(read, tail.length);
+                System.arraycopy(tail, keep, tail, 0, tail.length - keep);
+                System.arraycopy(buffer, read - keep, tail, tail.length - keep, keep);
+                total += read;
+            }
+            if (total == 0 || total % BLOCK_SIZE != 0) return false;
+            return decryptsWith(total < tail.length ? Arrays.copyOfRange(tail, BLOCK_SIZE, tail.length) : tail,
+                    newRoundKeys);
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decrypt with the old key and re-encrypt with the new key, block-parallel and in place
+     */
+    private void rotateChunk(byte[] chunk) {
+        IntStream.range(0, chunk.length / BLOCK_SIZE).parallel().forEach(block -> {
+            int offset = block * BLOCK_SIZE;
+            aes.decryptBlock(chunk, offset, chunk, offset, oldRoundKeys);
+            aes.encryptBlock(chunk, offset, chunk, offset, newRoundKeys);
+        });
+    }
+
+    /**
+     * Verify the old key on the last two blocks: valid PKCS7 padding followed back by valid UTF-8
+     * @param chunk The final chunk of ciphertext
+     * @param previousBlock Last ciphertext block of the chunk before, or null
+     */
+    private void checkOldKey(byte[] chunk, byte[] previousBlock) throws IOException {
+        int fromChunk = Math.min(2 * BLOCK_SIZE, chunk.length);
+        int tailLength = previousBlock != null && fromChunk < 2 * BLOCK_SIZE ? 2 * BLOCK_SIZE : fromChunk;
+        byte[] tail = new byte[tailLength];
+        System.arraycopy(chunk, chunk.length - fromChunk, tail, tailLength - fromChunk, fromChunk);
+        if (fromChunk < tailLength) {
+            System.arraycopy(previousBlock, 0, tail, 0, BLOCK_SIZE);
+        }
+        if (!decryptsWith(tail, oldRoundKeys)) {
+            throw new IOException("Ciphertext does not decrypt with the old key");
+        }
+    }
+
+    /**
+     * Decrypt the last one or two ciphertext blocks and check the PKCS7 padding and the UTF-8 before it
+     */
+    private boolean decryptsWith(byte[] cipherTail, int[][] roundKeys) {
+        int tailLength = cipherTail.length;
+        byte[] tail = new byte[tailLength];
+        for (int i = 0; i < tailLength; i += BLOCK_SIZE) {
+            aes.decryptBlock(cipherTail, i, tail, i, roundKeys);
+        }
+
+        int paddingLength = tail[tailLength - 1] & 0xFF;
+        boolean valid = paddingLength > 0 && paddingLength <= BLOCK_SIZE;
+        for (int i = tailLength - paddingLength; valid && i < tailLength; i++) {
+            valid = (tail[i] & 0xFF) == paddingLength;
+        }
+        valid = valid && isUtf8(tail, tailLength - paddingLength);
+        Arrays.fill(tail, (byte) 0);
+        return valid;
+    }
+
+    /**
+     * Check that the bytes are valid UTF-8, allowing a character cut off at the start
+     */
+    private static boolean isUtf8(byte[] data, int length) {
+        int start = 0;
+        while (start < 3 && start < length && (data[start] & 0xC0) == 0x80) {
+            start++;
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(data, start, length - start));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * SHA-256 fingerprint of the key pair, so a checkpoint is only reused for the same rotation
+     */
+    private static String fingerprint(byte[] oldKey, byte[] newKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((byte) oldKey.length);
+            digest.update(oldKey);
+            digest.update((byte) newKey.length);
+            digest.update(newKey);
+            return TextCodec.HEX.encode(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Detect the input codec from the first bytes of the text
+     */
+    private TextCodec codecFor(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_SIZE);
+        byte[] prefix = in.readNBytes(SNIFF_SIZE);
+        in.reset();
+        String text = new String(prefix, StandardCharsets.ISO_8859_1).trim();
+        return TextCodec.detect(text);
+    }
+
+    private static Path tempFor(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+    }
+
+    private static String relative(Path root, Path file) {
+        return root.relativize(file).toString();
+    }
+
+    /**
+     * Append-only list of completed files for one key pair, synced on every record
+     * The first line holds the key fingerprint, the following lines the completed files.
+     */
+    private static final class Checkpoint {
+        private static final String HEADER = "keys ";
+
+        private final Path path;
+        private final String fingerprint;
+        private final Set<String> completed = new HashSet<>();
+
+        private Checkpoint(Path path, String fingerprint) {
+            this.path = path;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Read an existing checkpoint, or an empty one if there is none
+         */
+        static Checkpoint load(Path path) throws IOException {
+            if (!Files.exists(path)) return new Checkpoint(path, null);
+
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            boolean hasHeader = !lines.isEmpty() && lines.get(0).startsWith(HEADER);
+            Checkpoint checkpoint = new Checkpoint(path, hasHeader ? lines.get(0).substring(HEADER.length()) : null);
+            for (String line : hasHeader ? lines.subList(1, lines.size()) : lines) {
+                if (!line.isEmpty()) checkpoint.completed.add(line);
+            }
+            return checkpoint;
+        }
+
+        /**
+         * Replace any existing checkpoint with an empty one for the given key pair
+         */
+        static Checkpoint start(Path path, String fingerprint) throws IOException {
+            Files.write(path, (HEADER + fingerprint + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+            return new Checkpoint(path, fingerprint);
+        }
+
+        boolean isFor(String keyFingerprint) {
+            return keyFingerprint.equals(fingerprint);
+        }
+
+        synchronized boolean contains(String file) {
+            return completed.contains(file);
+        }
+
+        synchronized void record(String file) throws IOException {
+            Files.write(path, (file + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            completed.add(file);
+        }
+    }
+
+    /**
+     * Keeps the codec encoder from closing the caller's stream
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
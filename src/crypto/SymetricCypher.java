@@ -2,6 +2,12 @@ package crypto;
 
 import crypto.algorithms.AESCipher;
 import crypto.algorithms.XORCipher;
+import crypto.encoding.DecimalCodec;
+import crypto.encoding.TextCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 /**
  * Main Symmetric Cipher class
@@ -12,6 +18,12 @@ public class SymetricCypher {
     // Algorithm instances
     private final AESCipher aesCipher;
     private final XORCipher xorCipher;
+
+    // Text encoding used for ciphertext
+    private TextCodec textCodec;
+
+    // Bulk encryption engine settings
+    private EngineProfile engineProfile;
     
     /**
      * Constructor - Initialize algorithm instances
@@ -19,26 +31,98 @@ public class SymetricCypher {
     public SymetricCypher() {
         this.aesCipher = new AESCipher();
         this.xorCipher = new XORCipher();
+        this.textCodec = TextCodec.BASE64;
+        this.engineProfile = EngineProfile.DEFAULT;
+    }
+
+    public EngineProfile getEngineProfile() {
+        return engineProfile;
+    }
+
+    /**
+     * Apply engine, thread count and chunk size for bulk encryption
+     * @param engineProfile The profile to use, usually chosen by Calibration
+     */
+    public void configure(EngineProfile engineProfile) {
+        aesCipher.setParallelism(engineProfile.getThreads(), engineProfile.getChunkSize());
+        this.engineProfile = engineProfile;
+    }
+
+    /**
+     * Configure from the cached profile, calibrating this host first if there is none
+     * @param profileFile The profile file
+     * @return The applied profile
+     */
+    public EngineProfile calibrate(Path profileFile) throws IOException {
+        configure(Calibration.loadOrRun(profileFile));
+        return engineProfile;
+    }
+
+    public TextCodec getTextCodec() {
+        return textCodec;
+    }
+
+    /**
+     * Select the text encoding for new ciphertext (Base64 by default)
+     * AES decryption detects the encoding on its own; XOR decryption uses this codec.
+     * @param textCodec The codec used to write ciphertext
+     * @throws IllegalArgumentException for the legacy decimal codec
+     */
+    public void setTextCodec(TextCodec textCodec) {
+        if (textCodec.isLegacy()) {
+            throw new IllegalArgumentException("The " + textCodec.name() + " encoding can only be read, not written");
+        }
+        this.textCodec = textCodec;
     }
     
     /**
      * Encrypt plaintext using the current algorithm (AES)
      * @param plainText The text to encrypt
      * @param key The encryption key
-     * @return Encrypted result
+     * @return Encrypted result, encoded with the current text codec
      */
     public String encrypt(String plainText, String key) {
-        return aesCipher.process(plainText, key);
+        byte[] cypherBytes = aesCipher.encrypt(plainText.getBytes(StandardCharsets.UTF_8), key);
+        return textCodec.encode(cypherBytes);
     }
 
     /**
      * Decrypt ciphertext using the current algorithm (AES)
+     * The text encoding (Base64, hex or legacy decimal) is detected from the ciphertext.
      * @param cypherText The text to decrypt
      * @param key The decryption key
      * @return Decrypted result
      */
     public String decrypt(String cypherText, String key) {
-        return aesCipher.process(cypherText, key);
+        TextCodec codec = TextCodec.detect(cypherText);
+        byte[] plainBytes = aesCipher.decrypt(codec.decode(cypherText), key);
+        return new String(plainBytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Encrypt plaintext using XOR
+     * @param plainText The text to encrypt
+     * @param key The encryption key
+     * @return Encrypted result, encoded with the current text codec
+     */
+    public String encryptWithXOR(String plainText, String key) {
+        return textCodec.encode(xorCipher.process(plainText.getBytes(StandardCharsets.UTF_8), key));
+    }
+
+    /**
+     * Decrypt XOR ciphertext
+     * XOR ciphertext has no block structure to detect the encoding from, so it is
+     * read with the current text codec; legacy decimal ciphertext is still recognized.
+     * @param cypherText The text to decrypt
+     * @param key The decryption key
+     * @return Decrypted result
+     */
+    public String decryptWithXOR(String cypherText, String key) {
+        if (DecimalCodec.isLegacyFormat(cypherText)) {
+            return xorCipher.process(cypherText, key);
+        }
+        byte[] plainBytes = xorCipher.process(textCodec.decode(cypherText), key);
+        return new String(plainBytes, StandardCharsets.UTF_8);
     }
     
     /**
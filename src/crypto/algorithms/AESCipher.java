@@ -1,6 +1,9 @@
 package crypto.algorithms;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * AES Cipher implementation
@@ -53,6 +56,28 @@ public class AESCipher {
             0x17, 0x2b, 0x04, 0x7e, 0xba, 0x77, 0xd6, 0x26, 0xe1, 0x69, 0x14, 0x63, 0x55, 0x21, 0x0c, 0x7d
     };
 
+    // Bulk encryption parallelism, replaced as a whole so callers always see a matching pool and chunk size
+    private volatile Parallelism parallelism = new Parallelism(null, 64 * 1024);
+
+    /**
+     * Configure how bulk byte encryption/decryption is split across threads
+     * Safe to call while other threads encrypt or decrypt: calls in progress finish
+     * on the previous pool, which is not shut down. Its workers are daemon threads
+     * that exit once idle, after which the pool is garbage collected.
+     *
+     * @param threads   Number of worker threads, 1 for sequential processing
+     * @param chunkSize Bytes processed per parallel task, a positive multiple of 16
+     */
+    public void setParallelism(int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        if (chunkSize < 16 || chunkSize % 16 != 0) {
+            throw new IllegalArgumentException("Chunk size must be a positive multiple of 16: " + chunkSize);
+        }
+        this.parallelism = new Parallelism(threads > 1 ? new ForkJoinPool(threads) : null, chunkSize);
+    }
+
     /**
      * Main method for AES encryption/decryption
      *
@@ -61,23 +86,9 @@ public class AESCipher {
      * @return Processed result
      */
     public String process(String text, String key) {
-        int rounds = 10; // default for AES-128
-        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
-        int keyBitLength = keyBytes.length * 8;
-
-        if (keyBitLength == 128) rounds = 10;
-        else if (keyBitLength == 192) rounds = 12;
-        else if (keyBitLength == 256) rounds = 14;
-        else {
-            // Pad or truncate key to 128 bits for now
-            byte[] paddedKey = new byte[16];
-            System.arraycopy(keyBytes, 0, paddedKey, 0, Math.min(keyBytes.length, 16));
-            keyBytes = paddedKey;
-            rounds = 10;
-        }
-
         // Generate round keys using key schedule
-        int[][] roundKeys = keySchedule(keyBytes, rounds);
+        int[][] roundKeys = expandKey(normalizeKey(key.getBytes(StandardCharsets.UTF_8)));
+        int rounds = roundKeys.length - 1;
 
         // Determine if this is encryption or decryption based on content
         // Encrypted data has spaces separating numbers and typically many more numbers
@@ -91,6 +102,218 @@ public class AESCipher {
     }
 
 
+    /**
+     * Encrypt raw bytes (PKCS7 padding, blocks encrypted independently)
+     *
+     * @param plainBytes The bytes to encrypt
+     * @param key        The encryption key
+     * @return Encrypted bytes, a multiple of 16 long
+     */
+    public byte[] encrypt(byte[] plainBytes, String key) {
+        int[][] roundKeys = expandKey(normalizeKey(key.getBytes(StandardCharsets.UTF_8)));
+
+        // PKCS7 padding: always add padding, even if length is multiple of 16
+        int paddingLength = 16 - (plainBytes.length % 16);
+        byte[] data = new byte[plainBytes.length + paddingLength];
+        System.arraycopy(plainBytes, 0, data, 0, plainBytes.length);
+        for (int i = plainBytes.length; i < data.length; i++) {
+            data[i] = (byte) paddingLength;
+        }
+
+        processBlocks(data, data, roundKeys, true);
+        return data;
+    }
+
+    /**
+     * Decrypt raw bytes produced by {@link #encrypt(byte[], String)}
+     *
+     * @param cipherBytes The bytes to decrypt, a multiple of 16 long
+     * @param key         The decryption key
+     * @return Decrypted bytes with padding removed
+     */
+    public byte[] decrypt(byte[] cipherBytes, String key) {
+        if (cipherBytes.length % 16 != 0) {
+            throw new IllegalArgumentException("Ciphertext length is not a multiple of the block size");
+        }
+        int[][] roundKeys = expandKey(normalizeKey(key.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] data = new byte[cipherBytes.length];
+        processBlocks(cipherBytes, data, roundKeys, false);
+        return data.length == 0 ? data : Arrays.copyOf(data, data.length - validPadding(data));
+    }
+
+    /**
+     * Encrypt or decrypt all blocks of src into dst, in parallel chunks when configured
+     */
+    private void processBlocks(byte[] src, byte[] dst, int[][] roundKeys, boolean encrypt) {
+        Parallelism current = parallelism;
+        ForkJoinPool workers = current.pool;
+        int chunk = current.chunkSize;
+        if (workers == null || src.length <= chunk) {
+            processRange(src, dst, 0, src.length, roundKeys, encrypt);
+            return;
+        }
+
+        workers.invoke(new ChunkTask(src, dst, 0, src.length, chunk, roundKeys, encrypt));
+    }
+
+    /**
+     * Worker pool (null means sequential) and the bytes processed per parallel task
+     */
+    private static final class Parallelism {
+        final ForkJoinPool pool;
+        final int chunkSize;
+
+        Parallelism(ForkJoinPool pool, int chunkSize) {
+            this.pool = pool;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Splits a block range in halves along chunk boundaries until each task holds one chunk
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] src;
+        private final byte[] dst;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final int[][] roundKeys;
+        private final boolean encrypt;
+
+        ChunkTask(byte[] src, byte[] dst, int from, int to, int chunk, int[][] roundKeys, boolean encrypt) {
+            this.src = src;
+            this.dst = dst;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.roundKeys = roundKeys;
+            this.encrypt = encrypt;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                processRange(src, dst, from, to, roundKeys, encrypt);
+                return;
+            }
+            int chunks = (to - from + chunk - 1) / chunk;
+            int middle = from + chunks / 2 * chunk;
+            invokeAll(new ChunkTask(src, dst, from, middle, chunk, roundKeys, encrypt),
+                    new ChunkTask(src, dst, middle, to, chunk, roundKeys, encrypt));
+        }
+    }
+
+    private void processRange(byte[] src, byte[] dst, int from, int to, int[][] roundKeys, boolean encrypt) {
+        for (int offset = from; offset < to; offset += 16) {
+            if (encrypt) encryptBlock(src, offset, dst, offset, roundKeys);
+            else decryptBlock(src, offset, dst, offset, roundKeys);
+        }
+    }
+
+    /**
+     * Length of a valid PKCS7 padding at the end of the data, or 0 if there is none
+     */
+    private static int validPadding(byte[] data) {
+        int paddingLength = data[data.length - 1] & 0xFF;
+        if (paddingLength == 0 || paddingLength > 16) return 0;
+        for (int i = data.length - paddingLength; i < data.length; i++) {
+            if ((data[i] & 0xFF) != paddingLength) return 0;
+        }
+        return paddingLength;
+    }
+
+    /**
+     * Normalize raw key bytes to a valid AES key length
+     * 16, 24 and 32 byte keys are kept as they are; any other length is
+     * padded or truncated to 128 bits
+     *
+     * @param keyBytes The raw key bytes
+     * @return Key bytes usable by {@link #expandKey(byte[])}
+     */
+    public static byte[] normalizeKey(byte[] keyBytes) {
+        if (keyBytes.length == 16 || keyBytes.length == 24 || keyBytes.length == 32) {
+            return keyBytes;
+        }
+        // Pad or truncate key to 128 bits for now
+        byte[] paddedKey = new byte[16];
+        System.arraycopy(keyBytes, 0, paddedKey, 0, Math.min(keyBytes.length, 16));
+        return paddedKey;
+    }
+
+    /**
+     * Expand a 16, 24 or 32 byte key into its round keys
+     * The number of rounds is {@code roundKeys.length - 1}
+     *
+     * @param key The normalized key bytes
+     * @return Round keys for {@link #encryptBlock} and {@link #decryptBlock}
+     */
+    public int[][] expandKey(byte[] key) {
+        int rounds;
+        if (key.length == 16) rounds = 10;
+        else if (key.length == 24) rounds = 12;
+        else if (key.length == 32) rounds = 14;
+        else throw new IllegalArgumentException("Invalid AES key length: " + key.length);
+        return keySchedule(key, rounds);
+    }
+
+    /**
+     * Encrypt a single 16-byte block with pre-expanded round keys
+     * Input and output may be the same array and offset
+     */
+    public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff, int[][] roundKeys) {
+        int rounds = roundKeys.length - 1;
+        int[][] state = blockToState(in, inOff);
+
+        // Initial round key addition
+        addRoundKey(state, roundKeys[0]);
+
+        // Main rounds
+        for (int round = 1; round < rounds; round++) {
+            subBytes(state);
+            shiftRows(state);
+            mixColumns(state);
+            addRoundKey(state, roundKeys[round]);
+        }
+
+        // Final round (no MixColumns)
+        subBytes(state);
+        shiftRows(state);
+        addRoundKey(state, roundKeys[rounds]);
+
+        stateToBlock(state, out, outOff);
+    }
+
+    /**
+     * Decrypt a single 16-byte block with pre-expanded round keys
+     * Input and output may be the same array and offset
+     */
+    public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff, int[][] roundKeys) {
+        int rounds = roundKeys.length - 1;
+        int[][] state = blockToState(in, inOff);
+
+        // Initial round key addition
+        addRoundKey(state, roundKeys[rounds]);
+
+        // Main rounds (in reverse)
+        for (int round = rounds - 1; round > 0; round--) {
+            invShiftRows(state);
+            invSubBytes(state);
+            addRoundKey(state, roundKeys[round]);
+            invMixColumns(state);
+        }
+
+        // Final round (no InvMixColumns)
+        invShiftRows(state);
+        invSubBytes(state);
+        addRoundKey(state, roundKeys[0]);
+
+        stateToBlock(state, out, outOff);
+    }
+
     /**
      * AES Encryption
      */
@@ -99,27 +322,10 @@ public class AESCipher {
         StringBuilder result = new StringBuilder();
 
         for (int blockIndex = 0; blockIndex < blocks.length; blockIndex++) {
-            byte[] block = blocks[blockIndex];
-            int[][] state = blockToState(block);
-
-            // Initial round key addition
-            addRoundKey(state, roundKeys[0]);
-
-            // Main rounds
-            for (int round = 1; round < rounds; round++) {
-                subBytes(state);
-                shiftRows(state);
-                mixColumns(state);
-                addRoundKey(state, roundKeys[round]);
-            }
-
-            // Final round (no MixColumns)
-            subBytes(state);
-            shiftRows(state);
-            addRoundKey(state, roundKeys[rounds]);
+            byte[] encryptedBlock = new byte[16];
+            encryptBlock(blocks[blockIndex], 0, encryptedBlock, 0, roundKeys);
 
-            // Convert state back to bytes and append to result
-            byte[] encryptedBlock = stateToBlock(state);
+            // Append encrypted bytes to result
             for (int i = 0; i < encryptedBlock.length; i++) {
                 if (result.length() > 0) result.append(" ");
                 result.append(encryptedBlock[i] & 0xFF);
@@ -147,27 +353,7 @@ public class AESCipher {
 
         // Decrypt each block
         for (int blockIndex = 0; blockIndex < blocks.length; blockIndex++) {
-            byte[] block = blocks[blockIndex];
-            int[][] state = blockToState(block);
-
-            // Initial round key addition
-            addRoundKey(state, roundKeys[rounds]);
-
-            // Main rounds (in reverse)
-            for (int round = rounds - 1; round > 0; round--) {
-                invShiftRows(state);
-                invSubBytes(state);
-                addRoundKey(state, roundKeys[round]);
-                invMixColumns(state);
-            }
-
-            // Final round (no InvMixColumns)
-            invShiftRows(state);
-            invSubBytes(state);
-            addRoundKey(state, roundKeys[0]);
-
-            // Convert state back to bytes
-            blocks[blockIndex] = stateToBlock(state);
+            decryptBlock(blocks[blockIndex], 0, blocks[blockIndex], 0, roundKeys);
         }
 
         return blocksToText(blocks);
@@ -295,24 +481,22 @@ public class AESCipher {
         return new String(result, StandardCharsets.UTF_8);
     }
 
-    private int[][] blockToState(byte[] block) {
+    private int[][] blockToState(byte[] block, int offset) {
         int[][] state = new int[4][4];
         for (int col = 0; col < 4; col++) {
             for (int row = 0; row < 4; row++) {
-                state[row][col] = block[col * 4 + row] & 0xFF;
+                state[row][col] = block[offset + col * 4 + row] & 0xFF;
             }
         }
         return state;
     }
 
-    private byte[] stateToBlock(int[][] state) {
-        byte[] block = new byte[16];
+    private void stateToBlock(int[][] state, byte[] block, int offset) {
         for (int col = 0; col < 4; col++) {
             for (int row = 0; row < 4; row++) {
-                block[col * 4 + row] = (byte) state[row][col];
+                block[offset + col * 4 + row] = (byte) state[row][col];
             }
         }
-        return block;
     }
 
     // AES round operations
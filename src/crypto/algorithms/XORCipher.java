@@ -26,6 +26,21 @@ public class XORCipher {
         }
     }
     
+    /**
+     * Encrypt or decrypt raw bytes using XOR with the UTF-8 key bytes
+     * @param data The bytes to encrypt/decrypt
+     * @param key The encryption key
+     * @return Encrypted/decrypted bytes
+     */
+    public byte[] process(byte[] data, String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = (byte) (data[i] ^ keyBytes[i % keyBytes.length]);
+        }
+        return result;
+    }
+    
     /**
      * Encrypt plaintext using XOR
      */
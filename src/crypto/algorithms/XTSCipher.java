@@ -0,0 +1,345 @@
+package crypto.algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * XTS-AES Cipher implementation
+ * IEEE 1619 XTS mode built on the AESCipher key schedule, meant for
+ * sector-addressable data such as disk images. Every sector is encrypted
+ * independently with a tweak derived from its sector number, so any sector
+ * range can be read or rewritten without touching the rest of the file and
+ * without storing per-sector IVs.
+ */
+public class XTSCipher {
+
+    public static final int DEFAULT_SECTOR_SIZE = 512;
+
+    private static final int BLOCK_SIZE = 16;
+
+    // Largest region mapped at once, rounded down to whole sectors
+    private static final long MAX_WINDOW = 256L * 1024 * 1024;
+
+    private final AESCipher aes;
+    private final int[][] dataRoundKeys;
+    private final int[][] tweakRoundKeys;
+    private final int sectorSize;
+
+    /**
+     * Constructor - XTS cipher with the default 512-byte sector size
+     * @param dataKey The key used to encrypt sector data
+     * @param tweakKey The key used to encrypt sector tweaks
+     */
+    public XTSCipher(String dataKey, String tweakKey) {
+        this(dataKey, tweakKey, DEFAULT_SECTOR_SIZE);
+    }
+
+    /**
+     * Constructor - XTS cipher with a custom sector size
+     * @param dataKey The key used to encrypt sector data
+     * @param tweakKey The key used to encrypt sector tweaks
+     * @param sectorSize Sector size in bytes, a positive multiple of 16
+     */
+    public XTSCipher(String dataKey, String tweakKey, int sectorSize) {
+        if (sectorSize < BLOCK_SIZE || sectorSize % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Sector size must be a positive multiple of 16: " + sectorSize);
+        }
+        byte[] key1 = AESCipher.normalizeKey(dataKey.getBytes(StandardCharsets.UTF_8));
+        byte[] key2 = AESCipher.normalizeKey(tweakKey.getBytes(StandardCharsets.UTF_8));
+        if (Arrays.equals(key1, key2)) {
+            throw new IllegalArgumentException("XTS data key and tweak key must be different");
+        }
+
+        this.aes = new AESCipher();
+        this.dataRoundKeys = aes.expandKey(key1);
+        this.tweakRoundKeys = aes.expandKey(key2);
+        this.sectorSize = sectorSize;
+    }
+
+    public int getSectorSize() {
+        return sectorSize;
+    }
+
+    /**
+     * Read a range of sectors of an encrypted file
+     * The range is mapped read-only and decrypted in a copy, so the file is not changed.
+     * @param file The encrypted file
+     * @param firstSector Index of the first sector to read
+     * @param sectorCount Number of sectors to read (clipped to the end of the file)
+     * @return The decrypted sectors
+     */
+    public byte[] readSectors(Path file, long firstSector, int sectorCount) throws IOException {
+        if (firstSector < 0 || sectorCount < 0) {
+            throw new IllegalArgumentException("Sector range must not be negative");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = firstSector * sectorSize;
+            if (start >= size) return new byte[0];
+
+            long end = Math.min(size, start + (long) sectorCount * sectorSize);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Sector range is too large to read at once");
+            }
+            checkTail((end - start) % sectorSize);
+
+            byte[] data = new byte[(int) (end - start)];
+            channel.map(FileChannel.MapMode.READ_ONLY, start, data.length).get(data);
+            processBuffer(ByteBuffer.wrap(data), firstSector, false);
+            return data;
+        }
+    }
+
+    /**
+     * Write plaintext sectors into an encrypted file
+     * The plaintext is encrypted in a copy and written through a read-write
+     * mapping of only the affected sectors. The range must lie within the file
+     * and cover whole sectors, except for a final partial sector at the end of the file.
+     * @param file The encrypted file
+     * @param firstSector Index of the first sector to write
+     * @param plaintext The new sector contents
+     */
+    public void writeSectors(Path file, long firstSector, byte[] plaintext) throws IOException {
+        if (firstSector < 0) {
+            throw new IllegalArgumentException("Sector range must not be negative");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long start = firstSector * sectorSize;
+            long end = start + plaintext.length;
+            if (end > size) {
+                throw new IllegalArgumentException("Sector range extends past the end of the file");
+            }
+            if (plaintext.length % sectorSize != 0 && end != size) {
+                throw new IllegalArgumentException("Only the final sector of the file may be partial");
+            }
+            if (plaintext.length == 0) return;
+
+            byte[] data = plaintext.clone();
+            processBuffer(ByteBuffer.wrap(data), firstSector, true);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, data.length);
+            buffer.put(data);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Encrypt a range of sectors of a file in place
+     * Meant for converting a whole plaintext image; use readSectors and
+     * writeSectors to access an image that is already encrypted.
+     * The file is memory-mapped and only the requested sectors are read and written.
+     * A trailing partial sector is handled with ciphertext stealing.
+     * @param file The file to update
+     * @param firstSector Index of the first sector to encrypt
+     * @param sectorCount Number of sectors to encrypt (clipped to the end of the file)
+     */
+    public void encryptSectors(Path file, long firstSector, long sectorCount) throws IOException {
+        processFile(file, firstSector, sectorCount, true);
+    }
+
+    /**
+     * Decrypt a range of sectors of a file in place
+     * Meant for converting a whole image back to plaintext; this writes plaintext to the file.
+     * @param file The file to update
+     * @param firstSector Index of the first sector to decrypt
+     * @param sectorCount Number of sectors to decrypt (clipped to the end of the file)
+     */
+    public void decryptSectors(Path file, long firstSector, long sectorCount) throws IOException {
+        processFile(file, firstSector, sectorCount, false);
+    }
+
+    /**
+     * Encrypt the buffer contents between position and limit in place
+     * The bytes are treated as consecutive sectors starting at firstSector,
+     * and sectors are processed in parallel. The position is not changed.
+     */
+    public void encrypt(ByteBuffer buffer, long firstSector) {
+        processBuffer(buffer, firstSector, true);
+    }
+
+    /**
+     * Decrypt the buffer contents between position and limit in place
+     */
+    public void decrypt(ByteBuffer buffer, long firstSector) {
+        processBuffer(buffer, firstSector, false);
+    }
+
+    /**
+     * Encrypt one sector in place
+     * @param data Array holding the sector
+     * @param offset Start of the sector in the array
+     * @param length Sector length, between 16 and the sector size
+     * @param sectorNumber The sector number used as tweak
+     */
+    public void encryptSector(byte[] data, int offset, int length, long sectorNumber) {
+        checkSectorLength(length);
+        byte[] tweak = initialTweak(sectorNumber);
+        int fullBlocks = length / BLOCK_SIZE;
+        int tail = length % BLOCK_SIZE;
+        int plainBlocks = tail == 0 ? fullBlocks : fullBlocks - 1;
+
+        for (int i = 0; i < plainBlocks; i++) {
+            encryptXtsBlock(data, offset + i * BLOCK_SIZE, tweak);
+            multiplyByAlpha(tweak);
+        }
+
+        if (tail != 0) {
+            // Ciphertext stealing: the partial block borrows the tail of the previous ciphertext block
+            int last = offset + plainBlocks * BLOCK_SIZE;
+            encryptXtsBlock(data, last, tweak);
+            multiplyByAlpha(tweak);
+            swapHead(data, last, tail);
+            encryptXtsBlock(data, last, tweak);
+        }
+    }
+
+    /**
+     * Decrypt one sector in place
+     * @param data Array holding the sector
+     * @param offset Start of the sector in the array
+     * @param length Sector length, between 16 and the sector size
+     * @param sectorNumber The sector number used as tweak
+     */
+    public void decryptSector(byte[] data, int offset, int length, long sectorNumber) {
+        checkSectorLength(length);
+        byte[] tweak = initialTweak(sectorNumber);
+        int fullBlocks = length / BLOCK_SIZE;
+        int tail = length % BLOCK_SIZE;
+        int plainBlocks = tail == 0 ? fullBlocks : fullBlocks - 1;
+
+        for (int i = 0; i < plainBlocks; i++) {
+            decryptXtsBlock(data, offset + i * BLOCK_SIZE, tweak);
+            multiplyByAlpha(tweak);
+        }
+
+        if (tail != 0) {
+            // Undo ciphertext stealing: the last full block was encrypted with the next tweak
+            int last = offset + plainBlocks * BLOCK_SIZE;
+            byte[] nextTweak = tweak.clone();
+            multiplyByAlpha(nextTweak);
+            decryptXtsBlock(data, last, nextTweak);
+            swapHead(data, last, tail);
+            decryptXtsBlock(data, last, tweak);
+        }
+    }
+
+    private void processFile(Path file, long firstSector, long sectorCount, boolean encrypt) throws IOException {
+        if (firstSector < 0 || sectorCount < 0) {
+            throw new IllegalArgumentException("Sector range must not be negative");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long start = firstSector * sectorSize;
+            if (start >= size) return;
+
+            long available = (size - start + sectorSize - 1) / sectorSize;
+            long end = Math.min(size, start + Math.min(sectorCount, available) * sectorSize);
+            // Reject a short final sector before any sector of the file is changed
+            checkTail((end - start) % sectorSize);
+            long window = Math.max(sectorSize, MAX_WINDOW / sectorSize * sectorSize);
+
+            for (long pos = start; pos < end; pos += window) {
+                long length = Math.min(window, end - pos);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, pos, length);
+                processBuffer(buffer, pos / sectorSize, encrypt);
+                buffer.force();
+            }
+        }
+    }
+
+    private void processBuffer(ByteBuffer buffer, long firstSector, boolean encrypt) {
+        int base = buffer.position();
+        int length = buffer.remaining();
+        long sectors = (length + sectorSize - 1) / sectorSize;
+        checkTail(length % sectorSize);
+
+        LongStream.range(0, sectors).parallel().forEach(i -> {
+            int start = base + (int) i * sectorSize;
+            int sectorLength = Math.min(sectorSize, base + length - start);
+            byte[] sector = new byte[sectorLength];
+            buffer.get(start, sector);
+            if (encrypt) {
+                encryptSector(sector, 0, sectorLength, firstSector + i);
+            } else {
+                decryptSector(sector, 0, sectorLength, firstSector + i);
+            }
+            buffer.put(start, sector);
+        });
+    }
+
+    private static void checkTail(long tail) {
+        if (tail != 0 && tail < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Final partial sector is shorter than one AES block: " + tail);
+        }
+    }
+
+    private void checkSectorLength(int length) {
+        if (length < BLOCK_SIZE || length > sectorSize) {
+            throw new IllegalArgumentException("Sector length must be between 16 and " + sectorSize + ": " + length);
+        }
+    }
+
+    /**
+     * Initial tweak - the sector number as a 128-bit little-endian value, encrypted with the tweak key
+     */
+    private byte[] initialTweak(long sectorNumber) {
+        byte[] tweak = new byte[BLOCK_SIZE];
+        for (int i = 0; i < 8; i++) {
+            tweak[i] = (byte) (sectorNumber >>> (8 * i));
+        }
+        aes.encryptBlock(tweak, 0, tweak, 0, tweakRoundKeys);
+        return tweak;
+    }
+
+    private void encryptXtsBlock(byte[] data, int offset, byte[] tweak) {
+        xorTweak(data, offset, tweak);
+        aes.encryptBlock(data, offset, data, offset, dataRoundKeys);
+        xorTweak(data, offset, tweak);
+    }
+
+    private void decryptXtsBlock(byte[] data, int offset, byte[] tweak) {
+        xorTweak(data, offset, tweak);
+        aes.decryptBlock(data, offset, data, offset, dataRoundKeys);
+        xorTweak(data, offset, tweak);
+    }
+
+    private static void xorTweak(byte[] data, int offset, byte[] tweak) {
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            data[offset + i] ^= tweak[i];
+        }
+    }
+
+    /**
+     * Swap the first count bytes of the block at offset with the partial block that follows it
+     */
+    private static void swapHead(byte[] data, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            byte temp = data[offset + i];
+            data[offset + i] = data[offset + BLOCK_SIZE + i];
+            data[offset + BLOCK_SIZE + i] = temp;
+        }
+    }
+
+    /**
+     * Multiply the tweak by the primitive element alpha in GF(2^128)
+     * Little-endian byte order, reduction polynomial x^128 + x^7 + x^2 + x + 1
+     */
+    private static void multiplyByAlpha(byte[] tweak) {
+        int carry = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int b = tweak[i] & 0xFF;
+            tweak[i] = (byte) ((b << 1) | carry);
+            carry = b >>> 7;
+        }
+        if (carry != 0) {
+            tweak[0] ^= (byte) 0x87;
+        }
+    }
+}
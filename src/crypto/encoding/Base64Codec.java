@@ -0,0 +1,180 @@
+package crypto.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64 codec (RFC 4648, standard alphabet with padding)
+ * Output is 4/3 of the input size; whitespace is ignored when decoding.
+ */
+public class Base64Codec implements TextCodec {
+
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int INVALID = -1;
+    private static final int WHITESPACE = -2;
+    private static final int PADDING = -3;
+
+    // Character to 6-bit value lookup table
+    private static final int[] DECODE = new int[256];
+
+    static {
+        Arrays.fill(DECODE, INVALID);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+        DECODE[' '] = WHITESPACE;
+        DECODE['\t'] = WHITESPACE;
+        DECODE['\r'] = WHITESPACE;
+        DECODE['\n'] = WHITESPACE;
+        DECODE['='] = PADDING;
+    }
+
+    @Override
+    public String name() {
+        return "base64";
+    }
+
+    @Override
+    public ChunkEncoder newEncoder() {
+        return new Encoder();
+    }
+
+    @Override
+    public ChunkDecoder newDecoder() {
+        return new Decoder();
+    }
+
+    private static final class Encoder implements ChunkEncoder {
+        private final byte[] carry = new byte[3];
+        private int carryLength;
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return (len + 4) / 3 * 4;
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+
+            // Complete a group left over from the previous chunk
+            if (carryLength > 0) {
+                while (carryLength < 3 && len > 0) {
+                    carry[carryLength++] = src[off++];
+                    len--;
+                }
+                if (carryLength < 3) return 0;
+                dp = encodeGroup(carry, 0, dst, dp);
+                carryLength = 0;
+            }
+
+            int end = off + len - len % 3;
+            for (int i = off; i < end; i += 3) {
+                dp = encodeGroup(src, i, dst, dp);
+            }
+
+            for (int i = end; i < off + len; i++) {
+                carry[carryLength++] = src[i];
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            if (carryLength == 0) return 0;
+            int bits = (carry[0] & 0xFF) << 16;
+            if (carryLength == 2) bits |= (carry[1] & 0xFF) << 8;
+
+            dst[dstOff] = ALPHABET[bits >>> 18];
+            dst[dstOff + 1] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[dstOff + 2] = carryLength == 2 ? ALPHABET[(bits >>> 6) & 0x3F] : (byte) '=';
+            dst[dstOff + 3] = '=';
+            carryLength = 0;
+            return 4;
+        }
+
+        private static int encodeGroup(byte[] src, int i, byte[] dst, int dp) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[dp] = ALPHABET[bits >>> 18];
+            dst[dp + 1] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[dp + 2] = ALPHABET[(bits >>> 6) & 0x3F];
+            dst[dp + 3] = ALPHABET[bits & 0x3F];
+            return dp + 4;
+        }
+    }
+
+    private static final class Decoder implements ChunkDecoder {
+        private int bits;
+        private int count;
+        private int padding;
+        private int expectedPadding;
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return (len + 3) / 4 * 3 + 3;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+            for (int i = off; i < off + len; i++) {
+                int value = DECODE[src[i] & 0xFF];
+                if (value >= 0) {
+                    if (padding > 0) throw new IllegalArgumentException("Base64 data after padding");
+                    bits = bits << 6 | value;
+                    if (++count == 4) {
+                        dst[dp] = (byte) (bits >>> 16);
+                        dst[dp + 1] = (byte) (bits >>> 8);
+                        dst[dp + 2] = (byte) bits;
+                        dp += 3;
+                        bits = 0;
+                        count = 0;
+                    }
+                } else if (value == PADDING) {
+                    if (padding == 0) {
+                        // Padding only completes a group of 2 or 3 characters
+                        if (count < 2) throw new IllegalArgumentException("Invalid Base64 padding");
+                        expectedPadding = 4 - count;
+                        dp += flushPartial(dst, dp);
+                    }
+                    if (++padding > expectedPadding) throw new IllegalArgumentException("Invalid Base64 padding");
+                } else if (value == INVALID) {
+                    throw new IllegalArgumentException("Invalid Base64 character: " + (char) (src[i] & 0xFF));
+                }
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            if (padding > 0 && padding != expectedPadding) {
+                throw new IllegalArgumentException("Truncated Base64 padding");
+            }
+            return flushPartial(dst, dstOff);
+        }
+
+        /**
+         * Emit the bytes of an incomplete final group (2 or 3 characters)
+         */
+        private int flushPartial(byte[] dst, int dp) {
+            int written;
+            if (count == 0) {
+                written = 0;
+            } else if (count == 2) {
+                dst[dp] = (byte) (bits >>> 4);
+                written = 1;
+            } else if (count == 3) {
+                dst[dp] = (byte) (bits >>> 10);
+                dst[dp + 1] = (byte) (bits >>> 2);
+                written = 2;
+            } else {
+                throw new IllegalArgumentException("Truncated Base64 input");
+            }
+            bits = 0;
+            count = 0;
+            return written;
+        }
+    }
+}
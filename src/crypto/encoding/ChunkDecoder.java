@@ -0,0 +1,27 @@
+package crypto.encoding;
+
+/**
+ * Incremental decoder - ASCII text in, bytes out
+ * Input may be split at any point; partial groups are carried to the next call.
+ */
+public interface ChunkDecoder {
+
+    /**
+     * Upper bound of the bytes produced by decoding len more text bytes, including finish()
+     */
+    int maxDecodedLength(int len);
+
+    /**
+     * Decode a chunk of text
+     * @return Number of bytes written to dst
+     * @throws IllegalArgumentException on text that is not valid for the codec
+     */
+    int decode(byte[] src, int off, int len, byte[] dst, int dstOff);
+
+    /**
+     * Flush any carried partial group and check the input ended cleanly
+     * @return Number of bytes written to dst
+     * @throws IllegalArgumentException if the input was truncated
+     */
+    int finish(byte[] dst, int dstOff);
+}
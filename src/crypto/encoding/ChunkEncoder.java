@@ -0,0 +1,25 @@
+package crypto.encoding;
+
+/**
+ * Incremental encoder - bytes in, ASCII text out
+ * Input may be split at any point; partial groups are carried to the next call.
+ */
+public interface ChunkEncoder {
+
+    /**
+     * Upper bound of the text produced by encoding len more bytes, including finish()
+     */
+    int maxEncodedLength(int len);
+
+    /**
+     * Encode a chunk of bytes
+     * @return Number of text bytes written to dst
+     */
+    int encode(byte[] src, int off, int len, byte[] dst, int dstOff);
+
+    /**
+     * Flush any carried partial group
+     * @return Number of text bytes written to dst
+     */
+    int finish(byte[] dst, int dstOff);
+}
@@ -0,0 +1,121 @@
+package crypto.encoding;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Legacy decimal codec
+ * Byte values as decimal numbers separated by spaces, the format written by
+ * AESCipher and XORCipher before text codecs existed. Kept only as a
+ * compatibility option for reading old .enc files; it expands data about 4x
+ * and is rejected as an output codec.
+ */
+public class DecimalCodec implements TextCodec {
+
+    // Byte value to its decimal digits
+    private static final byte[][] DIGITS = new byte[256][];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            DIGITS[i] = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "decimal";
+    }
+
+    @Override
+    public boolean isLegacy() {
+        return true;
+    }
+
+    /**
+     * Check whether text looks like legacy decimal ciphertext (digits separated by spaces)
+     * Base64 and hex output never contain spaces, so this tells the formats apart.
+     */
+    public static boolean isLegacyFormat(String text) {
+        boolean hasSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ') hasSpace = true;
+            else if (c < '0' || c > '9') return false;
+        }
+        return hasSpace;
+    }
+
+    @Override
+    public ChunkEncoder newEncoder() {
+        return new Encoder();
+    }
+
+    @Override
+    public ChunkDecoder newDecoder() {
+        return new Decoder();
+    }
+
+    private static final class Encoder implements ChunkEncoder {
+        private boolean first = true;
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return 4 * len;
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+            for (int i = off; i < off + len; i++) {
+                if (first) first = false;
+                else dst[dp++] = ' ';
+                byte[] digits = DIGITS[src[i] & 0xFF];
+                for (byte digit : digits) {
+                    dst[dp++] = digit;
+                }
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            return 0;
+        }
+    }
+
+    private static final class Decoder implements ChunkDecoder {
+        private int value;
+        private int digits;
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return len / 2 + 1;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+            for (int i = off; i < off + len; i++) {
+                int c = src[i] & 0xFF;
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    if (value > 255) throw new IllegalArgumentException("Decimal value out of byte range");
+                    digits++;
+                } else if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                    dp += finish(dst, dp);
+                } else {
+                    throw new IllegalArgumentException("Invalid decimal character: " + (char) c);
+                }
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            if (digits == 0) return 0;
+            dst[dstOff] = (byte) value;
+            value = 0;
+            digits = 0;
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package crypto.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that reads text in large chunks and returns the decoded bytes
+ */
+class DecodingInputStream extends InputStream {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final ChunkDecoder decoder;
+    private final byte[] text = new byte[CHUNK_SIZE];
+    private final byte[] data;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    DecodingInputStream(InputStream in, ChunkDecoder decoder) {
+        this.in = in;
+        this.decoder = decoder;
+        this.data = new byte[decoder.maxDecodedLength(CHUNK_SIZE)];
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (position == limit) {
+            if (eof || !fill()) return -1;
+        }
+        int count = Math.min(len, limit - position);
+        System.arraycopy(data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Decode the next chunk of text into the data buffer
+     * @return false once the input is exhausted and nothing more was produced
+     */
+    private boolean fill() throws IOException {
+        int read = in.readNBytes(text, 0, CHUNK_SIZE);
+        try {
+            position = 0;
+            limit = decoder.decode(text, 0, read, data, 0);
+            if (read < CHUNK_SIZE) {
+                eof = true;
+                limit += decoder.finish(data, limit);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return limit > 0 || !eof;
+    }
+}
@@ -0,0 +1,52 @@
+package crypto.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes written bytes in large chunks before passing them on
+ */
+class EncodingOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 3 * 64 * 1024;
+
+    private final OutputStream out;
+    private final ChunkEncoder encoder;
+    private final byte[] text;
+    private boolean closed;
+
+    EncodingOutputStream(OutputStream out, ChunkEncoder encoder) {
+        this.out = out;
+        this.encoder = encoder;
+        this.text = new byte[encoder.maxEncodedLength(CHUNK_SIZE)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        while (len > 0) {
+            int chunk = Math.min(len, CHUNK_SIZE);
+            out.write(text, 0, encoder.encode(b, off, chunk, text, 0));
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.write(text, 0, encoder.finish(text, 0));
+        out.close();
+    }
+}
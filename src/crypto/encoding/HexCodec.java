@@ -0,0 +1,126 @@
+package crypto.encoding;
+
+import java.util.Arrays;
+
+/**
+ * Hexadecimal codec
+ * Lowercase output at twice the input size; either case and whitespace are accepted when decoding.
+ */
+public class HexCodec implements TextCodec {
+
+    private static final int INVALID = -1;
+    private static final int WHITESPACE = -2;
+
+    // Byte value to its two hex digits
+    private static final byte[] PAIRS = new byte[512];
+
+    // Character to nibble lookup table
+    private static final int[] DECODE = new int[256];
+
+    static {
+        byte[] digits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+        for (int i = 0; i < 256; i++) {
+            PAIRS[2 * i] = digits[i >>> 4];
+            PAIRS[2 * i + 1] = digits[i & 0x0F];
+        }
+
+        Arrays.fill(DECODE, INVALID);
+        for (int i = 0; i < 16; i++) {
+            DECODE[digits[i]] = i;
+            DECODE[Character.toUpperCase(digits[i])] = i;
+        }
+        DECODE[' '] = WHITESPACE;
+        DECODE['\t'] = WHITESPACE;
+        DECODE['\r'] = WHITESPACE;
+        DECODE['\n'] = WHITESPACE;
+    }
+
+    @Override
+    public String name() {
+        return "hex";
+    }
+
+    /**
+     * Check whether text looks like hex-encoded AES ciphertext
+     * Hex digits are valid Base64 characters, so this also requires a whole number
+     * of 16-byte blocks (a multiple of 32 digits). Base64 text of the same shape
+     * would need every character to be a hex digit, which is negligibly rare.
+     */
+    public static boolean isHexFormat(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.length() % 32 != 0) return false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c > 0xFF || DECODE[c] < 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ChunkEncoder newEncoder() {
+        return new Encoder();
+    }
+
+    @Override
+    public ChunkDecoder newDecoder() {
+        return new Decoder();
+    }
+
+    private static final class Encoder implements ChunkEncoder {
+        @Override
+        public int maxEncodedLength(int len) {
+            return 2 * len;
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+            for (int i = off; i < off + len; i++) {
+                int pair = (src[i] & 0xFF) << 1;
+                dst[dp] = PAIRS[pair];
+                dst[dp + 1] = PAIRS[pair + 1];
+                dp += 2;
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            return 0;
+        }
+    }
+
+    private static final class Decoder implements ChunkDecoder {
+        private int high = -1;
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return len / 2 + 1;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int dp = dstOff;
+            for (int i = off; i < off + len; i++) {
+                int value = DECODE[src[i] & 0xFF];
+                if (value >= 0) {
+                    if (high < 0) {
+                        high = value;
+                    } else {
+                        dst[dp++] = (byte) (high << 4 | value);
+                        high = -1;
+                    }
+                } else if (value == INVALID) {
+                    throw new IllegalArgumentException("Invalid hex character: " + (char) (src[i] & 0xFF));
+                }
+            }
+            return dp - dstOff;
+        }
+
+        @Override
+        public int finish(byte[] dst, int dstOff) {
+            if (high >= 0) throw new IllegalArgumentException("Odd number of hex digits");
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package crypto.encoding;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Text encoding for ciphertext bytes
+ * Codecs are table-driven and work on large chunks, either in bulk on
+ * byte arrays or as streams wrapping the underlying input/output.
+ */
+public interface TextCodec {
+
+    TextCodec BASE64 = new Base64Codec();
+    TextCodec HEX = new HexCodec();
+    TextCodec DECIMAL = new DecimalCodec();
+
+    /**
+     * Codec name as used on the command line
+     */
+    String name();
+
+    /**
+     * Whether the codec is only kept for reading old ciphertext
+     * Legacy codecs must not be used to write new ciphertext.
+     */
+    default boolean isLegacy() {
+        return false;
+    }
+
+    /**
+     * Create a chunk encoder holding the state of one encoding run
+     */
+    ChunkEncoder newEncoder();
+
+    /**
+     * Create a chunk decoder holding the state of one decoding run
+     */
+    ChunkDecoder newDecoder();
+
+    /**
+     * Encode bytes to text
+     * @param data The bytes to encode
+     * @return Encoded text
+     */
+    default String encode(byte[] data) {
+        ChunkEncoder encoder = newEncoder();
+        byte[] text = new byte[encoder.maxEncodedLength(data.length)];
+        int length = encoder.encode(data, 0, data.length, text, 0);
+        length += encoder.finish(text, length);
+        return new String(text, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decode text to bytes
+     * @param text The text to decode
+     * @return Decoded bytes
+     * @throws IllegalArgumentException if the text is not valid for this codec
+     */
+    default byte[] decode(String text) {
+        byte[] source = text.getBytes(StandardCharsets.ISO_8859_1);
+        ChunkDecoder decoder = newDecoder();
+        byte[] data = new byte[decoder.maxDecodedLength(source.length)];
+        int length = decoder.decode(source, 0, source.length, data, 0);
+        length += decoder.finish(data, length);
+        byte[] result = new byte[length];
+        System.arraycopy(data, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Wrap an output stream so that bytes written are encoded as text
+     * Closing the returned stream writes any pending output and closes the wrapped stream.
+     */
+    default OutputStream encoder(OutputStream out) {
+        return new EncodingOutputStream(out, newEncoder());
+    }
+
+    /**
+     * Wrap an input stream of text so that reads return the decoded bytes
+     */
+    default InputStream decoder(InputStream in) {
+        return new DecodingInputStream(in, newDecoder());
+    }
+
+    /**
+     * Detect the codec of AES ciphertext text
+     * Legacy decimal text contains spaces, and hex text of AES ciphertext is a
+     * multiple of 32 hex digits; anything else is taken as Base64.
+     * @param text The ciphertext text, or a prefix of it
+     * @return The matching codec
+     */
+    static TextCodec detect(String text) {
+        if (DecimalCodec.isLegacyFormat(text)) return DECIMAL;
+        if (HexCodec.isHexFormat(text)) return HEX;
+        return BASE64;
+    }
+
+    /**
+     * Look up a codec by name
+     * @param name base64, hex or decimal
+     * @return The matching codec
+     */
+    static TextCodec forName(String name) {
+        switch (name.toLowerCase()) {
+            case "base64": return BASE64;
+            case "hex": return HEX;
+            case "decimal": return DECIMAL;
+            default: throw new IllegalArgumentException("Unknown text codec: " + name);
+        }
+    }
+}